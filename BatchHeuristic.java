@@ -0,0 +1,151 @@
+import java.lang.reflect.Constructor;
+import java.util.List;
+
+/***
+ * Scores many boards at once.
+ *
+ * Boards are packed column-wise: column p holds the tile at position p of every board,
+ * so the same position of many boards sits side by side in memory. Each board's score
+ * is identical to Solver.countMisplaced and Solver.sumDistances.
+ *
+ * This class is the scalar path and needs no extra modules. create() picks the
+ * Vector API subclass (vector/VectorBatchHeuristic.java) when it was compiled in and
+ * the jdk.incubator.vector module is present.
+ */
+class BatchHeuristic {
+
+    static final int MAX_BOARD_SIZE = 9;
+    private static final Constructor<? extends BatchHeuristic> VECTOR = findVector(); // null if unavailable
+
+    final byte[][] tiles; // tiles[position][board]
+    int size; // number of packed boards
+
+
+    BatchHeuristic(int capacity){
+        tiles = new byte[MAX_BOARD_SIZE][capacity];
+    }
+
+
+    /***
+     * Looks up the Vector API scorer once, when this class is loaded.
+     *
+     * @return Its constructor, or null if it was not compiled in or the module is missing.
+     */
+    private static Constructor<? extends BatchHeuristic> findVector(){
+        if(!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) return null;
+        try {
+            return Class.forName("VectorBatchHeuristic").asSubclass(BatchHeuristic.class)
+                    .getDeclaredConstructor(int.class);
+        }catch(ReflectiveOperationException | LinkageError e){
+            return null; // the vector sources were not compiled in, score with the scalar path
+        }
+    }
+
+
+    /***
+     * Gives the fastest batch scorer available in this JVM.
+     *
+     * @param capacity Most boards packed at once.
+     * @return The vector scorer if it can be loaded, the scalar scorer otherwise.
+     */
+    static BatchHeuristic create(int capacity){
+        if(VECTOR == null) return new BatchHeuristic(capacity);
+        try {
+            return VECTOR.newInstance(capacity);
+        }catch(ReflectiveOperationException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /***
+     * Packs board states, e.g. the children of an expanded node or a batch of frontier entries.
+     *
+     * @param states Board states to score.
+     */
+    void pack(List<String> states){
+        size = 0;
+        for(String state : states){
+            add(state);
+        }
+    }
+
+
+    /***
+     * Packs one more board state.
+     *
+     * @param state A board state.
+     */
+    void add(String state){
+        for(int position = 0; position < MAX_BOARD_SIZE; position++){
+            tiles[position][size] = (byte)(state.charAt(position) - '0');
+        }
+        size++;
+    }
+
+
+    /***
+     * Scores every packed board.
+     *
+     * @param heuristic The heuristic code.
+     * @param scores Receives each board's score.
+     */
+    void score(int heuristic, byte[] scores){
+        if(heuristic == Solver.MISPLACED) {
+            countMisplaced(scores);
+        }else{
+            sumDistances(scores);
+        }
+    }
+
+
+    /***
+     * Counts misplaced tiles for every packed board.
+     *
+     * @param scores Receives each board's number of misplaced tiles.
+     */
+    void countMisplaced(byte[] scores){
+        countMisplaced(scores, 0);
+    }
+
+
+    /***
+     * Sums tile distances for every packed board.
+     *
+     * @param scores Receives each board's sum of tile distances.
+     */
+    void sumDistances(byte[] scores){
+        sumDistances(scores, 0);
+    }
+
+
+    /***
+     * @param from Index of the first board to score.
+     */
+    void countMisplaced(byte[] scores, int from){
+        for(int board = from; board < size; board++){
+            int count = 0;
+            for(int position = 0; position < MAX_BOARD_SIZE; position++){
+                byte tile = tiles[position][board];
+                if(tile != 0 && tile != position) count++;
+            }
+            scores[board] = (byte)count;
+        }
+    }
+
+
+    /***
+     * @param from Index of the first board to score.
+     */
+    void sumDistances(byte[] scores, int from){
+        for(int board = from; board < size; board++){
+            int total = 0;
+            for(int position = 0; position < MAX_BOARD_SIZE; position++){
+                byte tile = tiles[position][board];
+                if(tile == 0) continue;
+                total += Math.abs(position / 3 - tile / 3) + Math.abs(position % 3 - tile % 3);
+            }
+            scores[board] = (byte)total;
+        }
+    }
+}
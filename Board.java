@@ -93,6 +93,21 @@ public class Board{
     }
 
 
+    /***
+     * Determines whether a state holds each of the tiles 0-8 exactly once.
+     *
+     * @param state A board state.
+     * @return If the state is well-formed.
+     */
+    static boolean isValid(String state){
+        if(state.length() != MAX_BOARD_SIZE) return false;
+        for(char tile = '0'; tile < '0' + MAX_BOARD_SIZE; tile++){
+            if(state.indexOf(tile) < 0) return false;
+        }
+        return true;
+    }
+
+
     // *** GETTERS ***
 
 
@@ -0,0 +1,153 @@
+import java.util.*;
+
+/***
+ * Measures batch heuristic evaluation against Solver's one-board-at-a-time heuristics.
+ *
+ * Every batch round packs the board Strings and then scores them, since the search
+ * produces Strings. Packing is timed inside the same rounds and shown next to the total.
+ * Each line is measured several times and reported as median [min - max]. The vector path
+ * is only measured when it was compiled in and the module is added:
+ *   java --add-modules jdk.incubator.vector -cp out HeuristicBenchmark [boards] [rounds] [repeats]
+ */
+class HeuristicBenchmark {
+
+    private static final int DEFAULT_BOARDS = 4096;
+    private static final int DEFAULT_ROUNDS = 2000;
+    private static final int DEFAULT_REPEATS = 5;
+    private static final int WARMUP_ROUNDS = 500;
+    private static int sink; // keeps results alive so the JIT cannot discard the work
+
+    // boards with hand-counted Manhattan distances, so Solver is not only checked against itself
+    private static final String[] KNOWN_BOARDS = { "012345678", "102345678", "123405678", "876543210" };
+    private static final int[] KNOWN_DISTANCES = { 0, 1, 6, 20 };
+
+
+    private static long timeStrings(List<String> states, int heuristic, int rounds){
+        Timer timer = new Timer();
+        timer.reset();
+        for(int r = 0; r < rounds; r++){
+            for(String state : states){
+                sink += heuristic == Solver.MISPLACED ? Solver.countMisplaced(state) : Solver.sumDistances(state);
+            }
+        }
+        return timer.getElapsedTime();
+    }
+
+
+    /***
+     * @return Time spent packing and total time, in nanoseconds.
+     */
+    private static long[] timeBatch(BatchHeuristic batch, List<String> states, byte[] scores, int heuristic, int rounds){
+        long pack = 0;
+        long total = 0;
+        for(int r = 0; r < rounds; r++){
+            long start = System.nanoTime();
+            batch.pack(states);
+            long packed = System.nanoTime();
+            batch.score(heuristic, scores);
+            long scored = System.nanoTime();
+
+            pack += packed - start;
+            total += scored - start;
+            sink += scores[r % scores.length];
+        }
+        return new long[]{ pack, total };
+    }
+
+
+    /***
+     * Checks Solver's distances on the known boards.
+     */
+    private static void verifyKnown(){
+        for(int i = 0; i < KNOWN_BOARDS.length; i++){
+            if(Solver.sumDistances(KNOWN_BOARDS[i]) != KNOWN_DISTANCES[i]) {
+                throw new IllegalStateException("Solver.sumDistances(" + KNOWN_BOARDS[i] + ") is "
+                        + Solver.sumDistances(KNOWN_BOARDS[i]) + ", expected " + KNOWN_DISTANCES[i]);
+            }
+        }
+    }
+
+
+    /***
+     * Checks every board's batch score against Solver's.
+     */
+    private static void verify(BatchHeuristic batch, List<String> states, byte[] scores, int heuristic){
+        Arrays.fill(scores, (byte)-1);
+        timeBatch(batch, states, scores, heuristic, 1);
+        for(int i = 0; i < states.size(); i++){
+            String state = states.get(i);
+            int expected = heuristic == Solver.MISPLACED ? Solver.countMisplaced(state) : Solver.sumDistances(state);
+            if(scores[i] != expected) {
+                throw new IllegalStateException(batch.getClass().getName() + " score " + scores[i]
+                        + " differs from " + expected + " for " + state);
+            }
+        }
+    }
+
+
+    /***
+     * @param nanos Nanoseconds per board of each repeat.
+     * @return "median [min - max]"
+     */
+    private static String spread(double[] nanos){
+        double[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("%7.2f [%6.2f - %6.2f]", sorted[sorted.length / 2], sorted[0], sorted[sorted.length - 1]);
+    }
+
+
+    /***
+     * @param args [boards] [rounds] [repeats]
+     */
+    public static void main(String args[]){
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BOARDS;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_REPEATS;
+        double perboard = (double)boards * rounds;
+
+        Solver.setDebug(false);
+        verifyKnown();
+
+        List<String> states = new ArrayList<>();
+        Board board = new Board();
+        for(int i = 0; i < boards; i++){
+            board.setRandom();
+            states.add(board.getState());
+        }
+
+        List<BatchHeuristic> batches = new ArrayList<>();
+        batches.add(new BatchHeuristic(boards));
+        BatchHeuristic fastest = BatchHeuristic.create(boards);
+        if(fastest.getClass() != BatchHeuristic.class) batches.add(fastest);
+        else System.out.println("Vector path not available, measuring the scalar path only.");
+
+        byte[] scores = new byte[boards];
+        System.out.printf("%-40s %-26s %s%n", "ns/board, median [min - max] of " + repeats, "total", "of which packing");
+
+        for(int heuristic : new int[]{ Solver.MISPLACED, Solver.MANHATTAN }){
+            String name = heuristic == Solver.MISPLACED ? "countMisplaced" : "sumDistances";
+
+            double[] strings = new double[repeats];
+            timeStrings(states, heuristic, WARMUP_ROUNDS);
+            for(int i = 0; i < repeats; i++){
+                strings[i] = timeStrings(states, heuristic, rounds) / perboard;
+            }
+            System.out.printf("%-40s %s%n", "Solver." + name, spread(strings));
+
+            for(BatchHeuristic batch : batches){
+                double[] pack = new double[repeats];
+                double[] total = new double[repeats];
+
+                verify(batch, states, scores, heuristic);
+                timeBatch(batch, states, scores, heuristic, WARMUP_ROUNDS);
+                for(int i = 0; i < repeats; i++){
+                    long[] nanos = timeBatch(batch, states, scores, heuristic, rounds);
+                    pack[i] = nanos[0] / perboard;
+                    total[i] = nanos[1] / perboard;
+                }
+                System.out.printf("%-40s %s    %s%n", batch.getClass().getName() + " pack+" + name,
+                        spread(total), spread(pack));
+            }
+        }
+    }
+}
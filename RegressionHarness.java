@@ -0,0 +1,281 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/***
+ * Checks every engine/heuristic combination against exact optimal depths.
+ *
+ * A breadth-first search from the goal gives the optimal depth of all 181440
+ * reachable states. Each combination then solves a seeded sample of them; the run
+ * fails if a returned path does not lead to the goal or is longer than optimal, or if
+ * the nodes expanded for any instance grow beyond the committed baseline by more than
+ * the threshold. The baseline holds one line per instance, so a regression on a few
+ * boards is not hidden by the total over all of them.
+ *
+ * Times depend on the machine, so they are only compared when a per-machine file is
+ * given with --times (e.g. regression-times.txt, which is not committed).
+ *
+ * Usage: java RegressionHarness [--record] [--seed n] [--instances n] [--baseline file]
+ *        [--times file] [--expansion-threshold f] [--time-threshold f]
+ *
+ * Exits with 0 when every check passes, 1 when one fails and 2 on a usage error.
+ */
+class RegressionHarness {
+
+    private static final String USAGE = "Usage: java RegressionHarness [--record] [--seed n] [--instances n]"
+            + " [--baseline file] [--times file] [--expansion-threshold f] [--time-threshold f]";
+    private static final String GOAL = "012345678";
+    private static final String[] ENGINES = { "astar", "ida" };
+    private static final String[] HEURISTICS = { "misplaced", "manhattan" };
+    private static final int TIMING_RUNS = 3; // the fastest run is compared, to damp machine noise
+
+
+    private static void usage(String message){
+        if(message != null) System.err.println(message);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+
+    /***
+     * Gives the value following an option.
+     */
+    private static String value(String args[], int i){
+        if(i + 1 == args.length) usage("Missing value for " + args[i] + ".");
+        return args[i + 1];
+    }
+
+
+    /***
+     * Breadth-first search over every state reachable from the goal. Moves are
+     * reversible, so a state's depth is its optimal solution length.
+     *
+     * @return Optimal depth of every solvable state, in order of discovery.
+     */
+    static Map<String, Integer> optimalDepths(){
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        Queue<String> frontier = new ArrayDeque<>();
+        Board board = new Board();
+
+        depths.put(GOAL, 0);
+        frontier.add(GOAL);
+
+        while(!frontier.isEmpty()){
+            String state = frontier.poll();
+            int depth = depths.get(state);
+
+            board.set(state);
+            for(Board.Action action : board.getMoves()){
+                String next = Solver.move(state, board.getDestination(action));
+                if(!depths.containsKey(next)) {
+                    depths.put(next, depth + 1);
+                    frontier.add(next);
+                }
+            }
+        }
+        return depths;
+    }
+
+
+    /***
+     * Reads "engine heuristic seed board value" lines (or "engine heuristic seed instances value"
+     * for times), keyed by everything but the value.
+     */
+    private static Map<String, Long> readBaseline(Path file) throws IOException {
+        Map<String, Long> baseline = new HashMap<>();
+        if(file == null || !Files.exists(file)) return baseline;
+
+        for(String line : Files.readAllLines(file, StandardCharsets.UTF_8)){
+            String[] fields = line.trim().split("\\s+");
+            if(fields.length != 5 || fields[0].startsWith("#")) continue;
+            baseline.put(String.join(" ", Arrays.copyOf(fields, 4)), Long.parseLong(fields[4]));
+        }
+        return baseline;
+    }
+
+
+    /***
+     * Follows a solution's moves from its initial state.
+     *
+     * @param state The initial board state.
+     * @param goal The goal node returned by a search.
+     * @return The state the moves lead to.
+     */
+    private static String replay(String state, Node goal){
+        Board board = new Board();
+        for(Board.Action action : Solver.getActions(goal)){
+            board.set(state);
+            if(!board.getMoves().contains(action)) return "illegal " + action + " from " + state;
+            state = Solver.move(state, board.getDestination(action));
+        }
+        return state;
+    }
+
+
+    /***
+     * @param args Options, see the class description.
+     */
+    public static void main(String args[]) throws IOException {
+        boolean record = false;
+        long seed = 2017;
+        int instances = 200;
+        Path baselinefile = Paths.get("regression-baseline.txt");
+        Path timesfile = null; // per-machine times, compared only when given
+        double expansionthreshold = 0.10; // allowed growth in nodes expanded
+        double timethreshold = 0.50; // allowed growth in time, which is noisier
+
+        try {
+            for(int i = 0; i < args.length; i++){
+                switch(args[i]){
+                    case "--record": record = true; break;
+                    case "--seed": seed = Long.parseLong(value(args, i++)); break;
+                    case "--instances": instances = Integer.parseInt(value(args, i++)); break;
+                    case "--baseline": baselinefile = Paths.get(value(args, i++)); break;
+                    case "--times": timesfile = Paths.get(value(args, i++)); break;
+                    case "--expansion-threshold": expansionthreshold = Double.parseDouble(value(args, i++)); break;
+                    case "--time-threshold": timethreshold = Double.parseDouble(value(args, i++)); break;
+                    default: usage("Unknown argument: " + args[i]);
+                }
+            }
+        }catch(NumberFormatException e){
+            usage("Not a number: " + e.getMessage());
+        }
+        if(instances < 1) usage("Need at least one instance.");
+
+        Solver.setDebug(false);
+
+        System.out.println("Computing optimal depths...");
+        Map<String, Integer> depths = optimalDepths();
+        List<String> states = new ArrayList<>(depths.keySet());
+        System.out.println(states.size() + " reachable states, deepest " + Collections.max(depths.values()) + " moves.");
+
+        // seeded instance set, drawn uniformly from the reachable states
+        Random random = new Random(seed);
+        List<String> sample = new ArrayList<>();
+        for(int i = 0; i < instances; i++){
+            sample.add(states.get(random.nextInt(states.size())));
+        }
+
+        Map<String, Long> baseline = record ? new HashMap<>() : readBaseline(baselinefile);
+        Map<String, Long> times = record ? new HashMap<>() : readBaseline(timesfile);
+        StringBuilder recordedexpansions = new StringBuilder("# engine heuristic seed board expansions\n");
+        Set<String> recordedinstances = new HashSet<>();
+        StringBuilder recordedtimes = new StringBuilder("# engine heuristic seed instances nanoseconds\n");
+        int timingruns = timesfile != null ? TIMING_RUNS : 1;
+        Timer stats = new Timer();
+        boolean failed = false;
+        boolean compared = false; // whether a baseline matched this seed
+
+        for(String engine : ENGINES){
+            for(String heuristic : HEURISTICS){
+                String combination = engine + " " + heuristic;
+                long expansions = 0;
+                long baselineexpansions = 0; // over the instances found in the baseline
+                long nanos = Long.MAX_VALUE;
+                int wrong = 0;
+                int regressed = 0;
+                double worst = 0; // largest growth of one instance over its baseline
+                String worstinstance = null;
+
+                // warm up on the first instances so the timings measure compiled code
+                for(int i = 0; i < Math.min(20, sample.size()); i++){
+                    Solver.solve(sample.get(i), Solver.parseHeuristic(heuristic), Solver.parseEngine(engine));
+                }
+
+                for(int run = 0; run < timingruns; run++){
+                    long runnanos = 0;
+
+                    for(String state : sample){
+                        stats.reset();
+                        Node goal = Solver.solve(state, Solver.parseHeuristic(heuristic), Solver.parseEngine(engine), stats);
+                        runnanos += stats.getElapsedTime();
+                        if(run > 0) continue; // searches are deterministic, check the first run only
+
+                        long instanceexpansions = stats.getExpansions();
+                        String instancekey = combination + " " + seed + " " + state;
+                        expansions += instanceexpansions;
+                        if(recordedinstances.add(instancekey)) { // the sample may draw a board twice
+                            recordedexpansions.append(instancekey).append(' ').append(instanceexpansions).append('\n');
+                        }
+
+                        Long previous = baseline.get(instancekey);
+                        if(previous != null) {
+                            compared = true;
+                            baselineexpansions += previous;
+                            double growth = (double)instanceexpansions / Math.max(previous, 1) - 1;
+                            if(worstinstance == null || growth > worst) {
+                                worst = growth;
+                                worstinstance = state + " expanded " + instanceexpansions + ", baseline " + previous;
+                            }
+                            if(instanceexpansions > previous * (1 + expansionthreshold) && regressed++ < 5) {
+                                System.out.println("  " + combination + ": " + state + " expanded "
+                                        + instanceexpansions + " nodes, baseline " + previous);
+                            }
+                        }
+
+                        int optimal = depths.get(state);
+                        String problem = null;
+                        if(goal == null) {
+                            problem = "no solution, optimal is " + optimal;
+                        }else if(goal.getPathCost() != optimal) {
+                            problem = "solved in " + goal.getPathCost() + " moves, optimal is " + optimal;
+                        }else if(!GOAL.equals(replay(state, goal))) {
+                            problem = "moves lead to " + replay(state, goal) + ", not " + GOAL;
+                        }
+                        if(problem != null && wrong++ < 5) {
+                            System.out.println("  " + combination + ": " + state + " " + problem);
+                        }
+                    }
+                    nanos = Math.min(nanos, runnanos);
+                }
+
+                System.out.printf("%-20s %4d/%d optimal %12d expanded %10.1f ms%n",
+                        combination, sample.size() - wrong, sample.size(), expansions, nanos / 1e6);
+                if(worstinstance != null) {
+                    System.out.printf("%-20s baseline %12d expanded, worst instance %+.1f%%: %s%n",
+                            "", baselineexpansions, worst * 100, worstinstance);
+                }
+                String key = combination + " " + seed + " " + instances; // times only compare like with like
+                recordedtimes.append(key).append(' ').append(nanos).append('\n');
+
+                if(wrong > 0) {
+                    System.out.println("FAIL " + combination + ": " + wrong + " wrong or suboptimal solutions.");
+                    failed = true;
+                }
+
+                if(regressed > 0) {
+                    System.out.println("FAIL " + combination + ": " + regressed + " instances expanded more than "
+                            + Math.round(expansionthreshold * 100) + "% over the baseline.");
+                    failed = true;
+                }
+
+                Long previoustime = times.get(key);
+                if(previoustime != null && nanos > previoustime * (1 + timethreshold)) {
+                    System.out.printf("FAIL %s: took %.1f ms, baseline %.1f ms.%n",
+                            combination, nanos / 1e6, previoustime / 1e6);
+                    failed = true;
+                }
+            }
+        }
+
+        if(record && failed) {
+            System.out.println("Baseline not recorded, the run failed.");
+        }else if(record) {
+            Files.write(baselinefile, recordedexpansions.toString().getBytes(StandardCharsets.UTF_8));
+            System.out.println("Expansions recorded to " + baselinefile + ".");
+            if(timesfile != null) {
+                Files.write(timesfile, recordedtimes.toString().getBytes(StandardCharsets.UTF_8));
+                System.out.println("Times recorded to " + timesfile + ".");
+            }
+        }else if(!compared) {
+            System.out.println("No baseline for seed " + seed + " in " + baselinefile
+                    + "; expansions were not compared.");
+        }
+
+        System.out.println(failed ? "FAILED" : "PASSED");
+        System.exit(failed ? 1 : 0);
+    }
+}
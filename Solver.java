@@ -10,11 +10,16 @@ import java.util.*;
 public class Solver {
 
     private static boolean DEBUG = true; // debugging
-    private static Scanner reader = new Scanner(System.in); // reading input
+    private static Scanner reader; // reading input, opened by the interactive menu only
     private static Comparator<Node> comparator = new NodeComparator(); // compare boards
     private static Timer timer = new Timer(); // count time to find solution
     private static int heuristictype; // keeps user-chosen heuristic function
 
+    static final int MISPLACED = 1; // h1(n)
+    static final int MANHATTAN = 2; // h2(n)
+    static final int ASTAR = 1; // A* search
+    static final int IDASTAR = 2; // iterative deepening A* search
+
 
     /***
      * Gives the user-chosen heuristic.
@@ -26,46 +31,162 @@ public class Solver {
     }
 
 
+    /***
+     * Turns debugging output on or off.
+     *
+     * @param debug Whether to print debugging output.
+     */
+    static void setDebug(boolean debug){
+        DEBUG = debug;
+    }
+
+
+    /***
+     * Gives the heuristic code for a heuristic name.
+     *
+     * @param name "misplaced" (or "h1", "1"), "manhattan" (or "h2", "2").
+     * @return The heuristic code.
+     */
+    static int parseHeuristic(String name){
+        switch(name.toLowerCase()){
+            case "misplaced":
+            case "h1":
+            case "1":
+                return MISPLACED;
+            case "manhattan":
+            case "h2":
+            case "2":
+                return MANHATTAN;
+            default:
+                throw new IllegalArgumentException("Unknown heuristic: " + name);
+        }
+    }
+
+
+    /***
+     * Gives the engine code for a search engine name.
+     *
+     * @param name "astar" (or "a*"), "ida" (or "idastar", "ida*").
+     * @return The engine code.
+     */
+    static int parseEngine(String name){
+        switch(name.toLowerCase()){
+            case "astar":
+            case "a*":
+                return ASTAR;
+            case "ida":
+            case "idastar":
+            case "ida*":
+                return IDASTAR;
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + name);
+        }
+    }
+
+
+    /***
+     * Solves a board with A* search without printing a report.
+     *
+     * @param state The initial board state to solve.
+     * @param heuristic The heuristic code.
+     * @return The goal node, or null if the puzzle is unsolvable.
+     */
+    static Node solve(String state, int heuristic){
+        return solve(state, heuristic, ASTAR);
+    }
+
+
+    /***
+     * Solves a board without printing a report.
+     *
+     * @param state The initial board state to solve.
+     * @param heuristic The heuristic code.
+     * @param engine The engine code.
+     * @return The goal node, or null if the puzzle is unsolvable.
+     */
+    static Node solve(String state, int heuristic, int engine){
+        return solve(state, heuristic, engine, new Timer());
+    }
+
+
+    /***
+     * Solves a board without printing a report, counting expanded states.
+     *
+     * @param state The initial board state to solve.
+     * @param heuristic The heuristic code.
+     * @param engine The engine code.
+     * @param stats Counts the states expanded by the search.
+     * @return The goal node, or null if the puzzle is unsolvable.
+     */
+    static Node solve(String state, int heuristic, int engine, Timer stats){
+        if(!isSolvable(state)) return null;
+
+        Board problem = new Board();
+        problem.set(state);
+        if(engine == IDASTAR) {
+            return idaStarSearch(problem, heuristic, stats);
+        }
+        return aStarSearch(problem, heuristic, stats);
+    }
+
+
+    /***
+     * Gives the actions taken from the initial state to a node.
+     *
+     * @param current The goal state.
+     * @return The actions in order.
+     */
+    static List<Board.Action> getActions(Node current){
+        LinkedList<Board.Action> actions = new LinkedList<>();
+        for(Node path = current; path.getParent() != null; path = path.getParent()){
+            actions.addFirst(path.getAction());
+        }
+        return actions;
+    }
+
+
     /***
      * Search algorithm which implements a priority queue.
      * Prioritizes minimum path cost nodes with minimum depth.
      *
      * @param problem The initial board state to solve.
+     * @param heuristic The heuristic code.
+     * @param stats Counts the states expanded by the search.
+     * @return The goal node, or null if no solution was found.
      */
-    private static void aStarSearch(Board problem){
+    private static Node aStarSearch(Board problem, int heuristic, Timer stats){
 
         Queue<Node> frontier = new PriorityQueue<>(comparator); // to prioritize state with minimum path cost
         Map<String,Integer> frontierlist = new HashMap<>(); // to check if state is in the frontier
         Set<String> explored = new HashSet<>(); // to record all 'explored' states
         Node root, current, nextmove; // define states
-        int frontiercost, successorcost;
+        int frontiercost;
 
 //        int generatedcount = 0; // count number of generated boards
 
         root = new Node(problem); // set initial board state
-        frontierlist.put(root.getState(), 0);
+        root.setScore(getScore(root, heuristic));
+        frontierlist.put(root.getState(), root.getScore());
         frontier.add(root); // add initial board to frontier priority queue (yet to be explored)
 
-        // first, check if the given board is solvable
-        if(!isSolvable(root.getState())) {
-            System.out.println("Puzzle is unsolvable.");
-            return;
-        }
-
         while(!frontier.isEmpty()){
             current = frontier.poll(); // choose the next least cost board
+
+            // skip an entry whose state was already reached by a cheaper path
+            if(explored.contains(current.getState())) continue;
+
             if(DEBUG) System.out.println("Polled " + current.getAction() + " with " + current.getScore() + " score.");
             frontierlist.remove(current.getState());
             problem.set(current.getState());
 
-            // if the solution is found, print it
+            // if the solution is found, return it
             if(isGoal(current.getState())) {
-                reconstructPath(root, current);
-                return;
+                return current;
             }
 
             // mark the current board state as 'explored'
             explored.add(current.getState());
+            stats.addExpansion();
             if(DEBUG) System.out.println("State " + current.getState() + " marked as explored.\n");
 
             // for each possible action, create new board states to explore (frontier)
@@ -80,7 +201,7 @@ public class Solver {
                 //if(DEBUG) System.out.println("New child state: " + nextmove.getState());
 
                 // evaluate child node's cost
-                nextmove.setScore(getScore(nextmove));
+                nextmove.setScore(getScore(nextmove, heuristic));
 
                 if(DEBUG) System.out.println(
                         "Action: " + nextmove.getAction() + ", "
@@ -98,25 +219,92 @@ public class Solver {
                 //if state has not been explored, but is in frontier set, compare costs
                 if(frontierlist.containsKey(nextmove.getState())){
                     frontiercost = frontierlist.get(nextmove.getState()); // <--- the cost of frontier node to compare to successor
-                    successorcost = getScore(current); // <--- the cost of the successor
-                    if(successorcost < frontiercost){
-                        frontierlist.replace(nextmove.getState(), successorcost);
-                        nextmove.setScore(frontiercost);
-                        frontier.remove(nextmove);
-                        nextmove.setScore(successorcost);
+                    if(nextmove.getScore() < frontiercost){
+                        // queue the cheaper path; the costlier entry is skipped once this state is explored
+                        frontierlist.replace(nextmove.getState(), nextmove.getScore());
                         frontier.add(nextmove);
                         if(DEBUG) System.out.println("State edited.");
                     }
                 }else{
                     //state is not in frontier set, add to frontier set
-                    frontierlist.put(nextmove.getState(), getScore(nextmove));
+                    frontierlist.put(nextmove.getState(), nextmove.getScore());
                     frontier.add(nextmove);
                     if(DEBUG) System.out.println("State added.");
                 }
             }
         }
-        // if the queue is empty, the program failed to find a solution, stops
-        System.out.println("Failure.");
+        // if the queue is empty, the program failed to find a solution
+        return null;
+    }
+
+
+    /***
+     * Iterative deepening A* search. Repeats a depth-first search bounded by f(n),
+     * raising the bound to the smallest f(n) that exceeded it, so memory stays
+     * proportional to the solution depth.
+     *
+     * @param problem The initial board state to solve.
+     * @param heuristic The heuristic code.
+     * @param stats Counts the states expanded by the search.
+     * @return The goal node, or null if no solution was found.
+     */
+    private static Node idaStarSearch(Board problem, int heuristic, Timer stats){
+        Node root = new Node(problem); // set initial board state
+        int[] bound = { getHeuristicCost(root.getState(), heuristic) }; // f(n) limit of the current iteration
+        Node goal;
+
+        while(bound[0] != Integer.MAX_VALUE){
+            if(DEBUG) System.out.println("Searching with bound " + bound[0] + ".");
+            goal = boundedSearch(problem, root, bound, heuristic, stats);
+            if(goal != null) return goal;
+        }
+        // every state was searched without finding the goal
+        return null;
+    }
+
+
+    /***
+     * Depth-first search of the states whose f(n) is within the bound.
+     *
+     * @param problem The board to expand states with.
+     * @param current The state to expand.
+     * @param bound The f(n) limit; replaced by the smallest f(n) found beyond it.
+     * @param heuristic The heuristic code.
+     * @param stats Counts the states expanded by the search.
+     * @return The goal node, or null if it is not within the bound.
+     */
+    private static Node boundedSearch(Board problem, Node current, int[] bound, int heuristic, Timer stats){
+        int limit = bound[0];
+        int next = Integer.MAX_VALUE; // smallest f(n) beyond the limit
+        Node nextmove, goal;
+
+        if(isGoal(current.getState())) return current;
+
+        stats.addExpansion();
+        problem.set(current.getState());
+        for(Board.Action action : current.getMoves()){
+            problem.set(current.getState()); // deeper searches move the board on
+
+            nextmove = new Node(problem, current, action);
+            nextmove.setState(move(current.getState(), current.getDestination(action)));
+
+            // do not undo the previous move
+            if(current.getParent() != null && nextmove.getState().equals(current.getParent().getState())) continue;
+
+            nextmove.setScore(nextmove.getPathCost() + getHeuristicCost(nextmove.getState(), heuristic));
+            if(nextmove.getScore() > limit) {
+                next = Math.min(next, nextmove.getScore());
+                continue;
+            }
+
+            bound[0] = limit;
+            goal = boundedSearch(problem, nextmove, bound, heuristic, stats);
+            if(goal != null) return goal;
+            next = Math.min(next, bound[0]);
+        }
+
+        bound[0] = next;
+        return null;
     }
 
 
@@ -129,10 +317,11 @@ public class Solver {
      * Gives the cost h(n) of the action taken from a given position. ---> h(n)
      *
      * @param state The node's state.
+     * @param heuristic The heuristic code.
      * @return Heuristic cost h(n) of the given action.
      */
-    private static int getHeuristicCost(String state){
-        if(getHeuristicType() == 1) {
+    private static int getHeuristicCost(String state, int heuristic){
+        if(heuristic == MISPLACED) {
             return countMisplaced(state);
         }else{
             return sumDistances(state);
@@ -144,13 +333,11 @@ public class Solver {
      * Get the overall cost f(n) of taking an action.
      *
      * @param state Node to evaluate.
+     * @param heuristic The heuristic code.
      * @return Overall cost f(n) of the given action.
      */
-    private static int getScore(Node state){
-        if(state.getParent() != null) {
-            return state.getPathCost() + getHeuristicCost(state.getParent().getState()); //<--- f(n) = g(n) + h(n)
-        }
-        return state.getPathCost();
+    private static int getScore(Node state, int heuristic){
+        return state.getPathCost() + getHeuristicCost(state.getState(), heuristic); //<--- f(n) = g(n) + h(n)
     }
 
 
@@ -195,7 +382,7 @@ public class Solver {
      * @return If the current state is goal state.
      */
     private static boolean isGoal(String state){
-        System.out.println(countMisplaced(state) == 0);
+        if(DEBUG) System.out.println(countMisplaced(state) == 0);
         return countMisplaced(state) == 0;
     }
 
@@ -206,7 +393,7 @@ public class Solver {
      * @param state A board state.
      * @return If the current state is solvable.
      */
-    private static boolean isSolvable(String state){
+    static boolean isSolvable(String state){
         int current;
         int compares;
         int total = 0;
@@ -242,13 +429,14 @@ public class Solver {
      * @param state A board state.
      * @return Number of misplaced tiles.
      */
-    private static int countMisplaced(String state){
+    static int countMisplaced(String state){
         int tilenumber;
         int count = 0;
 
         for(int currentpos = 0; currentpos < state.length(); currentpos++){
             tilenumber = Character.getNumericValue(state.charAt(currentpos));
-            if(currentpos != tilenumber){
+            // the blank is not a tile; counting it would overestimate the remaining moves
+            if(tilenumber != 0 && currentpos != tilenumber){
                 count++;
             }
         }
@@ -266,9 +454,8 @@ public class Solver {
      * @param state A board state.
      * @return Sum of the distances of each tile from their 'home' positions.
      */
-    private static int sumDistances(String state){
+    static int sumDistances(String state){
         int tilenumber;
-        int distance;
         int moves;
         int total = 0;
 
@@ -278,14 +465,11 @@ public class Solver {
 
             // get the value of the tile at current position
             tilenumber = Character.getNumericValue(state.charAt(currentpos));
-            if(currentpos != tilenumber){
-                // calculate the tile's distance from its 'origin' aka home position
-                distance = Math.abs(currentpos - tilenumber);
-
+            if(tilenumber != 0 && currentpos != tilenumber){
                 // calculate how many moves must be made to reach tile's home position
-                // using division by 3 to count ith tile's distance by row and
-                // modulus by 3 to count ith tile's distance by column
-                moves = distance / 3 + distance % 3;
+                // using division by 3 to count the rows between them and
+                // modulus by 3 to count the columns between them
+                moves = Math.abs(currentpos / 3 - tilenumber / 3) + Math.abs(currentpos % 3 - tilenumber % 3);
 
                 if(DEBUG) System.out.print(moves + " + ");
 
@@ -308,7 +492,7 @@ public class Solver {
      *
      * @param destination The blank tile's destination position.
      */
-    private static String move(String state, int destination){
+    static String move(String state, int destination){
         char temp;
         String newstate;
 
@@ -360,6 +544,7 @@ public class Solver {
     public static void main(String args[]){
 
         Board problem = new Board();
+        reader = new Scanner(System.in);
 
         while(true) {
             int choice = menu();
@@ -385,8 +570,19 @@ public class Solver {
             timer.reset(); // start timer and solve
 
             System.out.println("Solving...");
-            aStarSearch(problem);
+            if(!isSolvable(problem.getState())) {
+                System.out.println("Puzzle is unsolvable.");
+            }else{
+                Node root = new Node(problem);
+                Node goal = aStarSearch(problem, getHeuristicType(), timer);
+                if(goal != null) {
+                    reconstructPath(root, goal);
+                }else{
+                    System.out.println("Failure.");
+                }
+            }
 
+            System.out.println("# Nodes expanded: " + timer.getExpansions());
             System.out.println("Elapsed time: " + timer.getElapsedTime() / Math.pow(10, -9) + " ns"); // output total time
         }
     }
@@ -0,0 +1,113 @@
+import java.util.List;
+
+/***
+ * Non-interactive command line for scripts and cron jobs.
+ *
+ * Usage: solve [--heuristic misplaced|manhattan] [--engine astar|ida] [--time] board
+ *
+ * Prints the solution depth followed by the blank tile's moves, e.g.
+ *   14 LEFT UP RIGHT ...
+ * Exits with 0 when solved, 1 when the puzzle is unsolvable and 2 on a usage error.
+ *
+ * "solve --train" solves a fixed board with every engine and heuristic; solve.sh runs
+ * it once to record the class-data sharing archive that later runs start from.
+ */
+public class SolverCli {
+
+    private static final String USAGE =
+            "Usage: solve [--heuristic misplaced|manhattan] [--engine astar|ida] [--time] board";
+    private static final String TRAINING_BOARD = "123405678";
+
+
+    private static void usage(String message){
+        if(message != null) System.err.println(message);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+
+    /***
+     * Prints the solution depth followed by the blank tile's moves.
+     *
+     * @param goal The goal node.
+     */
+    private static void printSolution(Node goal){
+        List<Board.Action> actions = Solver.getActions(goal);
+        StringBuilder line = new StringBuilder().append(actions.size());
+        for(Board.Action action : actions){
+            line.append(' ').append(action);
+        }
+        System.out.println(line);
+    }
+
+
+    /***
+     * Solves the training board with every engine and heuristic, so that every class
+     * a real run may need is loaded.
+     */
+    private static void train(){
+        for(String engine : new String[]{ "astar", "ida" }){
+            for(String heuristic : new String[]{ "misplaced", "manhattan" }){
+                printSolution(Solver.solve(TRAINING_BOARD, Solver.parseHeuristic(heuristic), Solver.parseEngine(engine)));
+            }
+        }
+    }
+
+
+    /***
+     * @param args Options followed by the board, optionally preceded by "solve".
+     */
+    public static void main(String args[]){
+        int heuristic = Solver.MANHATTAN;
+        int engine = Solver.ASTAR;
+        boolean time = false;
+        String board = null;
+        Timer timer = new Timer();
+
+        timer.reset();
+        Solver.setDebug(false);
+
+        try {
+            for(int i = 0; i < args.length; i++){
+                switch(args[i]){
+                    case "solve": // optional subcommand name
+                        if(i > 0) usage("Unexpected argument: " + args[i]);
+                        break;
+                    case "--heuristic":
+                        if(++i == args.length) usage("Missing heuristic.");
+                        heuristic = Solver.parseHeuristic(args[i]);
+                        break;
+                    case "--engine":
+                        if(++i == args.length) usage("Missing engine.");
+                        engine = Solver.parseEngine(args[i]);
+                        break;
+                    case "--time":
+                        time = true;
+                        break;
+                    case "--train":
+                        train();
+                        return;
+                    default:
+                        if(args[i].startsWith("--") || board != null) usage("Unexpected argument: " + args[i]);
+                        board = args[i];
+                        break;
+                }
+            }
+        }catch(IllegalArgumentException e){
+            usage(e.getMessage());
+        }
+
+        if(board == null) usage("Missing board.");
+        if(!Board.isValid(board)) usage("Board must hold each of the tiles 0-8 once: " + board);
+
+        Node goal = Solver.solve(board, heuristic, engine);
+        if(goal == null) {
+            System.out.println("Puzzle is unsolvable.");
+            System.exit(1);
+        }
+
+        printSolution(goal);
+
+        if(time) System.err.println("Elapsed time: " + timer.getElapsedTime() / 1e6 + " ms");
+    }
+}
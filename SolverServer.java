@@ -0,0 +1,390 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/***
+ * A long-running local solver service.
+ *
+ * Listens on localhost and solves boards sent over HTTP:
+ *   GET  /solve?board=123405678&heuristic=manhattan   solves a single board
+ *   POST /solve?heuristic=manhattan                   solves a batch, one board per line
+ *   POST /score?heuristic=manhattan                   scores a batch with BatchHeuristic, without solving
+ *   GET  /stats                                       request latency percentiles
+ *
+ * Each board is answered with one line: "board depth actions...", "board unsolvable"
+ * or "board invalid". Boards that are already being solved share the pending answer
+ * and take no capacity. A request is admitted only if all of its other boards fit in
+ * the remaining capacity (solver threads plus queue); otherwise it is answered with
+ * 503 "busy" so that callers can back off, or 413 if it could never fit.
+ */
+public class SolverServer {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_QUEUE = 256; // boards waiting for a solver
+    private static final int WARMUP_BOARDS = 200; // solvable random boards solved before accepting requests
+    private static final int MIN_WARMUP_BOARDS = 4; // boards per solver thread, however many threads
+    private static final int LATENCY_SAMPLES = 4096; // most recent requests kept for percentiles
+    private static final long ANSWER_TIMEOUT = 60; // seconds a request waits for all of its answers
+    private static final int MAX_LINE = 16; // request body bytes allowed per board
+
+    private final ThreadPoolExecutor solvers; // pool of solver threads, bounded by 'capacity'
+    private final int boardlimit; // most boards solved or queued at once, and most boards per request
+    private final Semaphore capacity; // one permit per board being solved or queued
+    private final Map<String, CompletableFuture<String>> inflight = new ConcurrentHashMap<>(); // to coalesce identical boards
+    private final long[] latencies = new long[LATENCY_SAMPLES]; // ring buffer of request latencies (ns)
+    private long requests; // total number of requests recorded
+
+
+    SolverServer(int threads, int queue){
+        // admission is bounded by 'capacity', so the pool queue never holds more than boardlimit tasks
+        solvers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        solvers.prestartAllCoreThreads();
+        boardlimit = threads + queue;
+        capacity = new Semaphore(boardlimit);
+    }
+
+
+    /***
+     * Solves random solvable boards on every solver thread so the JIT has compiled the
+     * search before the first request arrives.
+     */
+    void warmUp() throws InterruptedException, ExecutionException {
+        List<Future<?>> warmups = new ArrayList<>();
+        int threads = solvers.getCorePoolSize();
+        int boards = Math.max(WARMUP_BOARDS / threads, MIN_WARMUP_BOARDS);
+
+        // one task per solver thread, so every thread takes part
+        for(int t = 0; t < threads; t++){
+            warmups.add(solvers.submit(() -> {
+                Board board = new Board();
+                for(int i = 0; i < boards; i++){
+                    // unsolvable boards return before searching, so they warm nothing up
+                    do {
+                        board.setRandom();
+                    } while(!Solver.isSolvable(board.getState()));
+                    Solver.solve(board.getState(), i % 2 == 0 ? Solver.MANHATTAN : Solver.MISPLACED);
+                }
+            }));
+        }
+        for(Future<?> warmup : warmups){
+            warmup.get();
+        }
+    }
+
+
+    /***
+     * Starts listening on the loopback interface.
+     *
+     * @param port The port to listen on.
+     */
+    void start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/score", this::handleScore);
+        server.createContext("/stats", this::handleStats);
+        // coalesced requests take no capacity, so a fixed pool bounds the request threads parked on answers
+        server.setExecutor(Executors.newFixedThreadPool(boardlimit));
+        server.start();
+    }
+
+
+    // ********
+    // HANDLERS
+    // ********
+
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        List<String> boards = new ArrayList<>();
+        int heuristic;
+
+        try {
+            heuristic = Solver.parseHeuristic(query.getOrDefault("heuristic", "manhattan"));
+        }catch(IllegalArgumentException e){
+            respond(exchange, 400, e.getMessage() + "\n");
+            return;
+        }
+
+        // a single board in the query, or a batch in the request body
+        if(query.containsKey("board")) boards.add(query.get("board"));
+        if("POST".equals(exchange.getRequestMethod()) && !readBoards(exchange, boards)) return;
+        if(boards.isEmpty()) {
+            respond(exchange, 400, "No board given.\n");
+            return;
+        }
+
+        // boards already being solved share the pending answer; only the others need capacity
+        Map<String, CompletableFuture<String>> answers = new HashMap<>();
+        Set<String> fresh = new LinkedHashSet<>();
+        for(String board : boards){
+            if(answers.containsKey(board) || fresh.contains(board)) continue;
+            if(!Board.isValid(board)) {
+                answers.put(board, CompletableFuture.completedFuture(board + " invalid"));
+                continue;
+            }
+            CompletableFuture<String> pending = inflight.get(heuristic + ":" + board);
+            if(pending != null) answers.put(board, pending);
+            else fresh.add(board);
+        }
+
+        // admit the whole batch or none of it
+        if(!capacity.tryAcquire(fresh.size())) {
+            respond(exchange, 503, "busy\n");
+            return;
+        }
+        for(String board : fresh){
+            answers.put(board, submit(board, heuristic));
+        }
+
+        StringBuilder response = new StringBuilder();
+        long deadline = start + TimeUnit.SECONDS.toNanos(ANSWER_TIMEOUT);
+        try {
+            for(String board : boards){
+                response.append(answers.get(board).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)).append('\n');
+            }
+        }catch(TimeoutException e){
+            respond(exchange, 504, "timeout\n"); // the boards keep their capacity until they are solved
+            return;
+        }catch(InterruptedException | ExecutionException e){
+            respond(exchange, 500, "Failure.\n");
+            return;
+        }
+
+        respond(exchange, 200, response.toString());
+        record(System.nanoTime() - start);
+    }
+
+
+    /***
+     * Answers each board with its heuristic cost h(n), "board invalid" or "board unsolvable".
+     * Scoring is cheap, so it runs on the request thread instead of the solver pool, but its
+     * boards are admitted against the same capacity as solves.
+     */
+    private void handleScore(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        if(!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, 405, "POST one board per line.\n");
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        List<String> boards = new ArrayList<>();
+        int heuristic;
+
+        try {
+            heuristic = Solver.parseHeuristic(query.getOrDefault("heuristic", "manhattan"));
+        }catch(IllegalArgumentException e){
+            respond(exchange, 400, e.getMessage() + "\n");
+            return;
+        }
+
+        if(!readBoards(exchange, boards)) return;
+        if(!capacity.tryAcquire(boards.size())) {
+            respond(exchange, 503, "busy\n");
+            return;
+        }
+
+        // pack the well-formed boards only, then answer in request order
+        List<String> valid = new ArrayList<>();
+        byte[] scores;
+        try {
+            for(String board : boards){
+                if(Board.isValid(board)) valid.add(board);
+            }
+            BatchHeuristic batch = BatchHeuristic.create(valid.size());
+            scores = new byte[valid.size()];
+            batch.pack(valid);
+            batch.score(heuristic, scores);
+        }finally{
+            capacity.release(boards.size());
+        }
+
+        StringBuilder response = new StringBuilder();
+        int scored = 0;
+        for(String board : boards){
+            if(!Board.isValid(board)) {
+                response.append(board).append(" invalid\n");
+            }else if(!Solver.isSolvable(board)) {
+                response.append(board).append(" unsolvable\n");
+                scored++;
+            }else{
+                response.append(board).append(' ').append(scores[scored++]).append('\n');
+            }
+        }
+        respond(exchange, 200, response.toString());
+        record(System.nanoTime() - start);
+    }
+
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        long[] samples;
+        long total;
+
+        synchronized(latencies) {
+            total = requests;
+            samples = Arrays.copyOf(latencies, (int)Math.min(total, LATENCY_SAMPLES));
+        }
+        Arrays.sort(samples);
+
+        respond(exchange, 200, "requests " + total + "\n"
+                + "p50 " + percentile(samples, 50) + " ms\n"
+                + "p90 " + percentile(samples, 90) + " ms\n"
+                + "p99 " + percentile(samples, 99) + " ms\n"
+                + "max " + percentile(samples, 100) + " ms\n"
+                + "queued " + solvers.getQueue().size() + "\n"
+                + "admitted " + (boardlimit - capacity.availablePermits()) + "/" + boardlimit + "\n");
+    }
+
+
+    // ********
+    // DISPATCH
+    // ********
+
+
+    /***
+     * Hands a valid board, holding one capacity permit, to the solver pool. If another
+     * request started solving the same board meanwhile, its pending answer is shared
+     * and the permit is given back. Otherwise the permit is released once it is solved.
+     *
+     * @param board A board state.
+     * @param heuristic The heuristic code.
+     * @return The pending answer line.
+     */
+    private CompletableFuture<String> submit(String board, int heuristic){
+        String key = heuristic + ":" + board;
+        CompletableFuture<String> answer = new CompletableFuture<>();
+        CompletableFuture<String> pending = inflight.putIfAbsent(key, answer);
+        if(pending != null) {
+            capacity.release();
+            return pending;
+        }
+
+        solvers.execute(() -> {
+            try {
+                answer.complete(solve(board, heuristic));
+            }catch(Throwable e){
+                answer.completeExceptionally(e); // waiters must never hang, even on an Error
+            }finally{
+                inflight.remove(key, answer);
+                capacity.release();
+            }
+        });
+        return answer;
+    }
+
+
+    private static String solve(String board, int heuristic){
+        Node goal = Solver.solve(board, heuristic);
+        if(goal == null) return board + " unsolvable";
+
+        StringBuilder line = new StringBuilder(board).append(' ').append(goal.getPathCost());
+        for(Board.Action action : Solver.getActions(goal)){
+            line.append(' ').append(action);
+        }
+        return line.toString();
+    }
+
+
+    // *********
+    // LATENCIES
+    // *********
+
+
+    private void record(long nanos){
+        synchronized(latencies) {
+            latencies[(int)(requests % LATENCY_SAMPLES)] = nanos;
+            requests++;
+        }
+    }
+
+
+    private static double percentile(long[] sorted, int p){
+        if(sorted.length == 0) return 0;
+        int index = (int)Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+
+    // ****
+    // HTTP
+    // ****
+
+
+    private static Map<String, String> parseQuery(String query){
+        Map<String, String> params = new HashMap<>();
+        if(query == null) return params;
+
+        for(String pair : query.split("&")){
+            int split = pair.indexOf('=');
+            if(split > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, split), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(split + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+
+    /***
+     * Reads one board per line from the request body. A body with more than
+     * 'boardlimit' boards is answered with 413.
+     *
+     * @param exchange The request.
+     * @param boards Receives the boards.
+     * @return If the boards were read; otherwise the request has been answered.
+     */
+    private boolean readBoards(HttpExchange exchange, List<String> boards) throws IOException {
+        byte[] bytes;
+        try(InputStream body = exchange.getRequestBody()) {
+            bytes = body.readNBytes(boardlimit * MAX_LINE + 1);
+        }
+
+        for(String line : new String(bytes, StandardCharsets.UTF_8).split("\\s+")){
+            if(!line.isEmpty()) boards.add(line);
+        }
+        if(bytes.length > boardlimit * MAX_LINE || boards.size() > boardlimit) {
+            respond(exchange, 413, "A request may hold at most " + boardlimit + " boards.\n");
+            return false;
+        }
+        return true;
+    }
+
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try(OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+
+    /***
+     * @param args [port] [solver threads] [queue capacity, in boards]
+     */
+    public static void main(String args[]) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queue = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_QUEUE;
+
+        Solver.setDebug(false);
+
+        SolverServer solverserver = new SolverServer(threads, queue);
+        System.out.println("Warming up " + threads + " solvers...");
+        solverserver.warmUp();
+        solverserver.start(port);
+        System.out.println("Listening on localhost:" + port);
+    }
+}
@@ -6,6 +6,7 @@ class Timer {
 //    private int comparisons;
 //    private int moves;
     private long time;
+    private long expansions;
 
     Timer(){
 //        comparisons = 0;
@@ -17,6 +18,15 @@ class Timer {
 //        comparisons = 0;
 //        moves = 0;
         time = System.nanoTime();
+        expansions = 0;
+    }
+
+    void addExpansion(){
+        expansions = expansions + 1;
+    }
+
+    long getExpansions(){
+        return expansions;
     }
 
     // *************************
@@ -0,0 +1,43 @@
+#!/bin/sh
+# Fast-startup wrapper around SolverCli.
+#
+#   ./solve.sh [--heuristic misplaced|manhattan] [--engine astar|ida] board
+#   ./solve.sh native-image     builds a native ./solve binary (needs GraalVM)
+#
+# solver.jar is rebuilt whenever a source file is newer than it. After each build a
+# training run ("--train": a fixed board with every engine and heuristic) records an
+# AppCDS archive of the classes it loads; later runs map that archive instead of
+# loading and verifying the classes.
+#
+# Both are built in a private directory next to them and moved into place, so runs
+# started at the same time (e.g. from cron) never see a half-written jar or archive.
+# JVM warnings, such as an archive that no longer matches the jar, go to stderr.
+
+DIR=$(cd "$(dirname "$0")" && pwd)
+JAR="$DIR/solver.jar"
+ARCHIVE="$DIR/solver.jsa"
+JAVA_OPTS="-XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xlog:disable -Xlog:all=warning:stderr"
+BUILD=
+trap 'rm -rf "$BUILD"' EXIT
+
+if [ ! -f "$JAR" ] || [ -n "$(find "$DIR" -maxdepth 1 -name '*.java' -newer "$JAR")" ]; then
+    BUILD=$(mktemp -d "$DIR/.build.XXXXXX") || exit 2
+    javac -sourcepath "$DIR" -d "$BUILD/classes" "$DIR/SolverCli.java" || exit 2
+    jar cfe "$BUILD/solver.jar" SolverCli -C "$BUILD/classes" . || exit 2
+    mv -f "$BUILD/solver.jar" "$JAR" || exit 2
+fi
+
+if [ "$1" = "native-image" ]; then
+    rm -rf "$BUILD"
+    exec native-image -O2 -jar "$JAR" -o "$DIR/solve"
+fi
+
+# the archive is only valid for the jar it was recorded with
+if [ -z "$(find "$ARCHIVE" -newer "$JAR" 2>/dev/null)" ]; then
+    [ -n "$BUILD" ] || BUILD=$(mktemp -d "$DIR/.build.XXXXXX") || exit 2
+    java -XX:ArchiveClassesAtExit="$BUILD/solver.jsa" $JAVA_OPTS -jar "$JAR" --train > /dev/null || exit 2
+    mv -f "$BUILD/solver.jsa" "$ARCHIVE" || exit 2
+fi
+
+rm -rf "$BUILD"
+exec java -XX:SharedArchiveFile="$ARCHIVE" $JAVA_OPTS -jar "$JAR" "$@"
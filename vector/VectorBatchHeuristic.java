@@ -0,0 +1,68 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/***
+ * Scores many boards at once with the Vector API.
+ *
+ * One vector instruction handles the same position of many packed boards; the boards
+ * left over after the last full vector are scored by the scalar path. Kept out of the
+ * plain build because it needs the incubating module:
+ *   javac --add-modules jdk.incubator.vector -d out *.java vector/*.java
+ */
+class VectorBatchHeuristic extends BatchHeuristic {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+
+    VectorBatchHeuristic(int capacity){
+        super(capacity);
+    }
+
+
+    @Override
+    void countMisplaced(byte[] scores){
+        int bound = SPECIES.loopBound(size);
+        int board;
+
+        for(board = 0; board < bound; board += SPECIES.length()){
+            ByteVector count = ByteVector.zero(SPECIES);
+            for(int position = 0; position < MAX_BOARD_SIZE; position++){
+                ByteVector tile = ByteVector.fromArray(SPECIES, tiles[position], board);
+                VectorMask<Byte> misplaced = tile.compare(VectorOperators.NE, (byte)position)
+                        .andNot(tile.compare(VectorOperators.EQ, (byte)0)); // the blank is not a tile
+                count = count.add((byte)1, misplaced);
+            }
+            count.intoArray(scores, board);
+        }
+        countMisplaced(scores, board);
+    }
+
+
+    @Override
+    void sumDistances(byte[] scores){
+        int bound = SPECIES.loopBound(size);
+        int board;
+
+        for(board = 0; board < bound; board += SPECIES.length()){
+            ByteVector total = ByteVector.zero(SPECIES);
+            for(int position = 0; position < MAX_BOARD_SIZE; position++){
+                ByteVector tile = ByteVector.fromArray(SPECIES, tiles[position], board);
+
+                // a tile's home row is the number of the thresholds 3 and 6 it reaches
+                ByteVector row = ByteVector.zero(SPECIES)
+                        .add((byte)1, tile.compare(VectorOperators.GE, (byte)3))
+                        .add((byte)1, tile.compare(VectorOperators.GE, (byte)6));
+                ByteVector column = tile.sub(row.mul((byte)3));
+
+                ByteVector distance = row.sub((byte)(position / 3)).abs()
+                        .add(column.sub((byte)(position % 3)).abs())
+                        .blend((byte)0, tile.compare(VectorOperators.EQ, (byte)0)); // the blank is not a tile
+                total = total.add(distance);
+            }
+            total.intoArray(scores, board);
+        }
+        sumDistances(scores, board);
+    }
+}